@@ -0,0 +1,151 @@
+package com.ikmich.numberformat;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.annotation.UiThreadTest;
+import android.support.test.runner.AndroidJUnit4;
+import android.text.InputFilter;
+import android.widget.EditText;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * Exercises the constraint filter and the text watcher together on a real EditText.
+ */
+@RunWith(AndroidJUnit4.class)
+public class NumberFormatterTextWatcherTest {
+
+    private EditText editText;
+    private NumberFormatterTextWatcher watcher;
+
+    private void createField() {
+        editText = new EditText(InstrumentationRegistry.getTargetContext());
+        watcher = new NumberFormatterTextWatcher(editText, Locale.US);
+    }
+
+    private void attach(String contents) {
+        watcher.setInitialText(contents);
+        editText.setFilters(new InputFilter[]{watcher.getConstraintFilter()});
+        editText.addTextChangedListener(watcher);
+    }
+
+    private void assertField(String text, String value) {
+        assertEquals(text, editText.getText().toString());
+        assertEquals(0, new BigDecimal(value).compareTo(watcher.getValue()));
+    }
+
+    @Test
+    @UiThreadTest
+    public void acceptedEdit_updatesValue() {
+        createField();
+        watcher.setMaxValue(new BigDecimal("100"));
+        attach("1");
+
+        editText.getText().append("0");
+        assertField("10", "10");
+    }
+
+    @Test
+    @UiThreadTest
+    public void rejectedTyping_keepsText() {
+        createField();
+        watcher.setMaxValue(BigDecimal.TEN);
+        attach("1");
+
+        editText.getText().append("1");
+        assertField("1", "1");
+    }
+
+    @Test
+    @UiThreadTest
+    public void rejectedDeleteOfDecimal_keepsText() {
+        createField();
+        watcher.setMaxValue(BigDecimal.TEN);
+        attach("1.5");
+
+        editText.getText().delete(1, 2);
+        assertField("1.5", "1.5");
+    }
+
+    @Test
+    @UiThreadTest
+    public void rejectedReplaceOfDecimal_keepsText() {
+        createField();
+        watcher.setMaxValue(BigDecimal.TEN);
+        attach("1.5");
+
+        editText.getText().replace(1, 3, "99");
+        assertField("1.5", "1.5");
+    }
+
+    @Test
+    @UiThreadTest
+    public void maxIntegerDigits_rejectsExtraDigit() {
+        createField();
+        watcher.setMaxIntegerDigits(3);
+        attach("123");
+
+        editText.getText().append("4");
+        assertField("123", "123");
+    }
+
+    @Test
+    @UiThreadTest
+    public void maxDecimalDigits_rejectsExtraFractionDigit() {
+        createField();
+        watcher.setMaxDecimalDigits(2);
+        attach("1.23");
+
+        editText.getText().append("4");
+        assertField("1.23", "1.23");
+
+        editText.getText().insert(2, "9");
+        assertField("1.23", "1.23");
+    }
+
+    @Test
+    @UiThreadTest
+    public void step_rejectsDigitsFinerThanStep() {
+        createField();
+        watcher.setStep(new BigDecimal("0.05"));
+        attach("1.1");
+
+        editText.getText().append("5");
+        assertField("1.15", "1.15");
+
+        editText.getText().append("1");
+        assertField("1.15", "1.15");
+    }
+
+    @Test
+    @UiThreadTest
+    public void initialText_isRoundedToMaxDecimalDigits() {
+        createField();
+        watcher.setMaxDecimalDigits(2);
+        attach("1.239");
+
+        assertField("1.24", "1.24");
+    }
+
+    @Test
+    @UiThreadTest
+    public void initialText_doesNotNotifyInputListener() {
+        createField();
+        final boolean[] notified = {false};
+        watcher.setInputListener(new NumberFormatterTextWatcher.InputListener() {
+            @Override
+            public void onChange(String unformattedValue, String formattedValue) {
+                notified[0] = true;
+            }
+        });
+        attach("12");
+
+        assertFalse(notified[0]);
+        assertField("12", "12");
+    }
+}
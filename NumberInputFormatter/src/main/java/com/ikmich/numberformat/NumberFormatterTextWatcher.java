@@ -2,15 +2,21 @@ package com.ikmich.numberformat;
 
 import android.support.annotation.NonNull;
 import android.text.Editable;
+import android.text.InputFilter;
+import android.text.Spanned;
 import android.text.TextUtils;
 import android.text.TextWatcher;
 import android.util.Log;
 import android.widget.EditText;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.text.NumberFormat;
 import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.regex.Pattern;
 
@@ -24,13 +30,45 @@ public class NumberFormatterTextWatcher implements TextWatcher {
     private String currencyString = "";
     private boolean shouldFormatText = true;
 
+    private String textBefore = "";
     private int lengthBefore = 0;
     private char charBefore;
     private boolean hasDecimalSeparator;
     private int numFractionDigits;
     private int maxDecimalDigits = -1;
+    private ScaledNumber scaledValue;
+    private boolean isWritingText;
+
+    private ScaledNumber minValue;
+    private ScaledNumber maxValue;
+    private ScaledNumber step;
+    private int maxIntegerDigits = -1;
 
     private InputListener inputListener;
+    private List<ValueListener> valueListeners = new ArrayList<>();
+    private List<ScaledValueListener> scaledValueListeners = new ArrayList<>();
+
+    /**
+     * Rejects edits that break a constraint rule before they are applied to the text.
+     */
+    private final InputFilter constraintFilter = new InputFilter() {
+        @Override
+        public CharSequence filter(CharSequence source, int start, int end,
+                                   Spanned dest, int dstart, int dend) {
+            if (isWritingText || !hasConstraints()) {
+                return null;
+            }
+
+            String result = new StringBuilder(dest)
+                    .replace(dstart, dend, source.subSequence(start, end).toString())
+                    .toString();
+            if (isRejected(readValue(result))) {
+                // Keep the text that would have been replaced
+                return dest.subSequence(dstart, dend);
+            }
+            return null;
+        }
+    };
 
     public NumberFormatterTextWatcher(EditText editText, @NonNull Locale locale) {
         this.editText = editText;
@@ -41,6 +79,16 @@ public class NumberFormatterTextWatcher implements TextWatcher {
         shouldFormatText = b;
     }
 
+    /**
+     * Sets the Locale used for parsing and formatting. The field's contents are not updated
+     * until {@link #refreshText()} is called.
+     *
+     * @param locale
+     */
+    public void setLocale(@NonNull Locale locale) {
+        this.locale = locale;
+    }
+
     /**
      * Sets the currency string to be prefixed to the number.
      *
@@ -135,14 +183,15 @@ public class NumberFormatterTextWatcher implements TextWatcher {
      * <em>shouldFormatCode</em> is true or false.
      */
     private String filterInput(String input, int count) {
+        return filterInput(input, count, true);
+    }
+
+    private String filterInput(String input, int count, boolean notifyInputListener) {
         if (input == null) {
             input = "";
         }
 
-        input = resolveDecimals(
-                removeDisallowedChars(
-                        resolveNegativeSign(
-                                removeCurrencyString(input))));
+        input = roundFractionDigits(cleanInput(input));
 
         // Format the characteristic (the part before the decimal character)
         int decimalIndex = input.indexOf(getDecimalChar());
@@ -154,11 +203,12 @@ public class NumberFormatterTextWatcher implements TextWatcher {
         }
 
         String unformattedValue = stripGroupingChar(input);
+        setScaledValue(toScaledNumber(unformattedValue));
 
         numFractionDigits = getNumCharsAfterDecimal(input);
         String formattedValue = format(unformattedValue);
 
-        if (inputListener != null) {
+        if (inputListener != null && notifyInputListener) {
             inputListener.onChange(
                     String.format("%s%s", currencyString, unformattedValue),
                     String.format("%s%s", currencyString, formattedValue));
@@ -186,6 +236,46 @@ public class NumberFormatterTextWatcher implements TextWatcher {
         return currencyString + input;
     }
 
+    /**
+     * Removes the currency string and any characters not allowed in a number, leaving at most
+     * one decimal character and a leading negative sign.
+     *
+     * @param input
+     * @return
+     */
+    private String cleanInput(String input) {
+        return resolveDecimals(
+                removeDisallowedChars(
+                        resolveNegativeSign(
+                                removeCurrencyString(input))));
+    }
+
+    /**
+     * Rounds a number string to maxDecimalDigits fraction digits, the same way
+     * {@link #format(String)} does, so that the stored value is the one the field shows. Typed
+     * input is kept within the limit by the constraint filter; this handles text that did not
+     * pass through it, e.g the field's initial contents.
+     *
+     * @param input
+     * @return
+     */
+    private String roundFractionDigits(String input) {
+        if (!isMaxDecimalCharsPropSet() || getNumCharsAfterDecimal(input) <= maxDecimalDigits) {
+            return input;
+        }
+
+        ScaledNumber number = toScaledNumber(stripGroupingChar(input));
+        if (number == null) {
+            return input;
+        }
+
+        // HALF_EVEN is DecimalFormat's default rounding mode
+        return number.toBigDecimal()
+                .setScale(maxDecimalDigits, RoundingMode.HALF_EVEN)
+                .toPlainString()
+                .replace('.', getDecimalChar());
+    }
+
     private String stripGroupingChar(String input) {
         return input.replaceAll(Pattern.quote(String.valueOf(getGroupingChar())), "");
     }
@@ -212,6 +302,146 @@ public class NumberFormatterTextWatcher implements TextWatcher {
         return input;
     }
 
+    /**
+     * Formats a numeric value for the current Locale, keeping all of its fraction digits.
+     *
+     * @param number
+     * @return
+     */
+    private String format(BigDecimal number) {
+        int fractionDigits = Math.max(number.scale(), 0);
+        try {
+            DecimalFormat nf = (DecimalFormat) NumberFormat.getInstance(locale);
+            nf.setMinimumFractionDigits(fractionDigits);
+            nf.setMaximumFractionDigits(fractionDigits);
+            nf.setGroupingUsed(shouldFormatText);
+            return nf.format(number);
+        } catch (ClassCastException e) {
+            e.printStackTrace();
+            Log.e("ERROR", e.getMessage(), e);
+        }
+
+        return number.toPlainString().replace('.', getDecimalChar());
+    }
+
+    /**
+     * Reads the numeric value of a number string as it is displayed, e.g with the currency
+     * string and grouping characters.
+     *
+     * @param input
+     * @return The value, or null if the string has no digits.
+     */
+    private ScaledNumber readValue(String input) {
+        return toScaledNumber(stripGroupingChar(cleanInput(input)));
+    }
+
+    /**
+     * Converts an unformatted number string to scaled-long form.
+     *
+     * @param unformattedValue A number string as returned by {@link #cleanInput(String)}, with
+     *                         the grouping characters removed.
+     * @return The value, or null if the string has no digits.
+     */
+    private ScaledNumber toScaledNumber(String unformattedValue) {
+        int decimalIndex = unformattedValue.indexOf(getDecimalChar());
+        long unscaled = 0;
+        int scale = 0;
+        boolean hasDigits = false;
+
+        for (int i = 0; i < unformattedValue.length(); i++) {
+            char c = unformattedValue.charAt(i);
+            if (c < '0' || c > '9') {
+                continue;
+            }
+
+            int digit = c - '0';
+            if (unscaled > (Long.MAX_VALUE - digit) / 10) {
+                // Too many digits for a long. Fall back to BigDecimal.
+                return ScaledNumber.of(
+                        new BigDecimal(unformattedValue.replace(getDecimalChar(), '.')));
+            }
+
+            hasDigits = true;
+            unscaled = unscaled * 10 + digit;
+            if (decimalIndex > -1 && i > decimalIndex) {
+                scale++;
+            }
+        }
+
+        if (!hasDigits) {
+            return null;
+        }
+
+        return ScaledNumber.of(unformattedValue.startsWith("-") ? -unscaled : unscaled, scale);
+    }
+
+    private void setScaledValue(ScaledNumber number) {
+        ScaledNumber oldValue = scaledValue;
+        scaledValue = number;
+        if (isSameValue(oldValue, number)) {
+            return;
+        }
+
+        for (ScaledValueListener scaledValueListener : scaledValueListeners) {
+            scaledValueListener.onValueChange(oldValue, number);
+        }
+
+        if (valueListeners.isEmpty()) {
+            return;
+        }
+
+        BigDecimal oldDecimal = oldValue == null ? null : oldValue.toBigDecimal();
+        BigDecimal newDecimal = number == null ? null : number.toBigDecimal();
+        for (ValueListener valueListener : valueListeners) {
+            valueListener.onValueChange(oldDecimal, newDecimal);
+        }
+    }
+
+    private boolean isSameValue(ScaledNumber a, ScaledNumber b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return a.compareTo(b) == 0;
+    }
+
+    private boolean hasConstraints() {
+        return minValue != null || maxValue != null || step != null || maxIntegerDigits > -1
+                || isMaxDecimalCharsPropSet();
+    }
+
+    /**
+     * Checks whether an edited value breaks a constraint rule in a way that typing more digits
+     * cannot fix, in which case the edit is rejected.
+     *
+     * @param number
+     * @return
+     */
+    private boolean isRejected(ScaledNumber number) {
+        if (number == null) {
+            return false;
+        }
+
+        if (maxIntegerDigits > -1 && number.integerDigits() > maxIntegerDigits) {
+            return true;
+        }
+
+        if (isMaxDecimalCharsPropSet() && number.scale() > maxDecimalDigits) {
+            return true;
+        }
+
+        // More digits only move a number further from zero, so a positive number above the
+        // maximum or a negative number below the minimum can not come back into range.
+        if (maxValue != null && number.signum() > 0 && number.compareTo(maxValue) > 0) {
+            return true;
+        }
+
+        if (minValue != null && number.signum() < 0 && number.compareTo(minValue) < 0) {
+            return true;
+        }
+
+        return step != null && number.hasDigitsBeyond(step.scale());
+    }
+
     private int getNumCharsAfterDecimal(String input) {
         int decimalIndex = input.indexOf(getDecimalChar());
         if (decimalIndex > -1) {
@@ -223,7 +453,8 @@ public class NumberFormatterTextWatcher implements TextWatcher {
 
     @Override
     public void beforeTextChanged(CharSequence s, int start, int count, int after) {
-        hasDecimalSeparator = s.toString().indexOf(getDecimalChar()) > -1;
+        textBefore = s.toString();
+        hasDecimalSeparator = textBefore.indexOf(getDecimalChar()) > -1;
         lengthBefore = s.length();
 
         if (start > 0) {
@@ -240,6 +471,12 @@ public class NumberFormatterTextWatcher implements TextWatcher {
     @Override
     public void onTextChanged(CharSequence s, int start, int before, int count) {
         String value = s.toString();
+        if (value.equals(textBefore)) {
+            // Nothing changed, e.g the constraint filter rejected the edit and the replaced
+            // text was written back as it was.
+            return;
+        }
+
         boolean isDelete = value.length() < lengthBefore;
 
         if (!isDelete && value.length() == 0) {
@@ -269,27 +506,12 @@ public class NumberFormatterTextWatcher implements TextWatcher {
                     start--;
                 }
             }
-
-            /*
-             If there's a maxDecimalDigits set, check needs to be put in place to ensure
-             that typing is disallowed after the maxDecimalDigits value is reached.
-             */
-            int decimalIndex = value.indexOf(getDecimalChar());
-            if (start > decimalIndex) {
-                if (isMaxDecimalCharsPropSet() && getNumCharsAfterDecimal(value) > maxDecimalDigits) {
-                    int lastIndex = value.length() - 1;
-                    value = removeCharAt(value, lastIndex);
-                    if (start == lastIndex) {
-                        start--;
-                    }
-                }
-            }
         }
 
         String filtered = filterInput(value, count);
 
         editText.removeTextChangedListener(this);
-        editText.setText(filtered);
+        writeText(filtered);
 
         int diff = filtered.length() - value.length();
 
@@ -357,7 +579,8 @@ public class NumberFormatterTextWatcher implements TextWatcher {
     }
 
     /**
-     * Used to limit the number of decimal places that should be allowed.
+     * Used to limit the number of decimal places that should be allowed. Edits that go over
+     * the limit are rejected by the {@link #getConstraintFilter() constraint filter}.
      *
      * @param maxDecimalDigits
      */
@@ -365,10 +588,191 @@ public class NumberFormatterTextWatcher implements TextWatcher {
         this.maxDecimalDigits = maxDecimalDigits;
     }
 
+    /**
+     * Writes the field's initial contents through the same filtering as typed input, so that
+     * the stored value matches what the field shows. Called before the watcher is attached.
+     * The InputListener is not notified, since the input has not changed.
+     *
+     * @param contents The existing contents of the field.
+     */
+    void setInitialText(String contents) {
+        writeText(filterInput(contents, contents.length(), false));
+    }
+
+    /**
+     * Sets the field's text without it being checked by the constraint filter, since text
+     * written by the watcher holds a value that has already been checked or stored.
+     *
+     * @param text
+     */
+    private void writeText(String text) {
+        isWritingText = true;
+        try {
+            editText.setText(text);
+        } finally {
+            isWritingText = false;
+        }
+    }
+
+    /**
+     * Gets the filter that rejects edits breaking the constraint rules, including
+     * maxDecimalDigits. It should be added to the EditText's filters, which
+     * {@link NumberInputFormatter#setup(boolean)} does.
+     *
+     * @return
+     */
+    public InputFilter getConstraintFilter() {
+        return constraintFilter;
+    }
+
+    /**
+     * Gets the numeric value of the current input.
+     *
+     * @return The value, or null if the field does not contain a number.
+     */
+    public BigDecimal getValue() {
+        return scaledValue == null ? null : scaledValue.toBigDecimal();
+    }
+
+    ScaledNumber getScaledValue() {
+        return scaledValue;
+    }
+
+    /**
+     * Checks the current value against the minimum, maximum, maximum integer digits and step
+     * rules. Edits that can never lead to a valid value are rejected before they are applied,
+     * but a value can still be invalid while it is being entered, e.g below the minimum.
+     *
+     * @return true if the value satisfies all the rules, or if there is no value.
+     */
+    public boolean isValueValid() {
+        if (scaledValue == null) {
+            return true;
+        }
+
+        if (maxIntegerDigits > -1 && scaledValue.integerDigits() > maxIntegerDigits) {
+            return false;
+        }
+
+        if (minValue != null && scaledValue.compareTo(minValue) < 0) {
+            return false;
+        }
+
+        if (maxValue != null && scaledValue.compareTo(maxValue) > 0) {
+            return false;
+        }
+
+        return step == null || scaledValue.isMultipleOf(step);
+    }
+
+    /**
+     * Rewrites the field's contents from the stored numeric value, using the current Locale and
+     * currency string. The existing text is not reparsed, so this can be called right after
+     * {@link #setLocale(Locale)} or {@link #setCurrencyString(String)}.
+     */
+    public void refreshText() {
+        BigDecimal value = getValue();
+        String formattedValue = value == null ? "" : format(value);
+        String output = currencyString + formattedValue;
+
+        editText.removeTextChangedListener(this);
+        writeText(output);
+        editText.setSelection(output.length());
+        editText.addTextChangedListener(this);
+
+        if (inputListener != null && value != null) {
+            inputListener.onChange(
+                    String.format("%s%s", currencyString, stripGroupingChar(formattedValue)),
+                    output);
+        }
+    }
+
+    /**
+     * Sets the smallest value allowed. Pass null to remove the limit.
+     *
+     * @param minValue
+     */
+    public void setMinValue(BigDecimal minValue) {
+        this.minValue = minValue == null ? null : ScaledNumber.of(minValue);
+    }
+
+    /**
+     * Sets the largest value allowed. Pass null to remove the limit.
+     *
+     * @param maxValue
+     */
+    public void setMaxValue(BigDecimal maxValue) {
+        this.maxValue = maxValue == null ? null : ScaledNumber.of(maxValue);
+    }
+
+    /**
+     * Used to limit the number of digits before the decimal character. Pass -1 to remove
+     * the limit.
+     *
+     * @param maxIntegerDigits
+     */
+    public void setMaxIntegerDigits(int maxIntegerDigits) {
+        this.maxIntegerDigits = maxIntegerDigits;
+    }
+
+    /**
+     * Requires the value to be a multiple of the step, e.g 0.05. Pass null to remove the rule.
+     *
+     * @param step A positive number.
+     */
+    public void setStep(BigDecimal step) {
+        if (step != null && step.signum() <= 0) {
+            throw new IllegalArgumentException("step must be positive");
+        }
+        this.step = step == null ? null : ScaledNumber.of(step);
+    }
+
     public void setInputListener(@NonNull InputListener inputListener) {
         this.inputListener = inputListener;
     }
 
+    /**
+     * Registers a listener to be notified when the numeric value of the input changes.
+     *
+     * @param valueListener
+     */
+    public void addValueListener(@NonNull ValueListener valueListener) {
+        if (!valueListeners.contains(valueListener)) {
+            valueListeners.add(valueListener);
+        }
+    }
+
+    public void removeValueListener(@NonNull ValueListener valueListener) {
+        valueListeners.remove(valueListener);
+    }
+
+    void addScaledValueListener(@NonNull ScaledValueListener scaledValueListener) {
+        if (!scaledValueListeners.contains(scaledValueListener)) {
+            scaledValueListeners.add(scaledValueListener);
+        }
+    }
+
+    void removeScaledValueListener(@NonNull ScaledValueListener scaledValueListener) {
+        scaledValueListeners.remove(scaledValueListener);
+    }
+
+    /**
+     * Same as {@link ValueListener}, but without converting the values to BigDecimal.
+     */
+    interface ScaledValueListener {
+        void onValueChange(ScaledNumber oldValue, ScaledNumber newValue);
+    }
+
+    public interface ValueListener {
+        /**
+         * Called when the numeric value of the input changes.
+         *
+         * @param oldValue The previous value, or null if there was no number
+         * @param newValue The new value, or null if there is no number
+         */
+        void onValueChange(BigDecimal oldValue, BigDecimal newValue);
+    }
+
     public interface InputListener {
         /**
          * Called when the input changes with a valid value
@@ -0,0 +1,135 @@
+package com.ikmich.numberformat;
+
+import android.support.annotation.NonNull;
+import android.view.Choreographer;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps a running total of the values of many {@link NumberInputFormatter} fields.
+ * <p>
+ * The total is updated from each field's old and new value as it changes, so no field is
+ * reparsed on a keystroke. It is held as a {@link ScaledNumber}, which only moves to a
+ * BigDecimal while the total does not fit in a long. Listeners are notified at most once per
+ * frame. Must be used from the main thread.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class NumberInputAggregator {
+
+    private ScaledNumber total = ScaledNumber.of(0, 0);
+
+    private Map<NumberInputFormatter, NumberFormatterTextWatcher.ScaledValueListener> registrations
+            = new HashMap<>();
+    private List<TotalListener> totalListeners = new ArrayList<>();
+    private boolean isNotifyPending;
+
+    private final Choreographer.FrameCallback notifyCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            isNotifyPending = false;
+            BigDecimal currentTotal = getTotal();
+            for (TotalListener totalListener : new ArrayList<>(totalListeners)) {
+                totalListener.onTotalChange(currentTotal);
+            }
+        }
+    };
+
+    /**
+     * Adds a field to the total. Its current value, if any, is added straight away.
+     *
+     * @param formatter
+     */
+    public void register(@NonNull NumberInputFormatter formatter) {
+        if (registrations.containsKey(formatter)) {
+            return;
+        }
+
+        NumberFormatterTextWatcher.ScaledValueListener valueListener =
+                new NumberFormatterTextWatcher.ScaledValueListener() {
+                    @Override
+                    public void onValueChange(ScaledNumber oldValue, ScaledNumber newValue) {
+                        update(oldValue, newValue);
+                        scheduleNotify();
+                    }
+                };
+        registrations.put(formatter, valueListener);
+        formatter.addScaledValueListener(valueListener);
+
+        update(null, formatter.getScaledValue());
+        scheduleNotify();
+    }
+
+    /**
+     * Removes a field from the total. Its current value, if any, is subtracted.
+     *
+     * @param formatter
+     */
+    public void unregister(@NonNull NumberInputFormatter formatter) {
+        NumberFormatterTextWatcher.ScaledValueListener valueListener =
+                registrations.remove(formatter);
+        if (valueListener == null) {
+            return;
+        }
+
+        formatter.removeScaledValueListener(valueListener);
+
+        update(formatter.getScaledValue(), null);
+        scheduleNotify();
+    }
+
+    public void addTotalListener(@NonNull TotalListener totalListener) {
+        if (!totalListeners.contains(totalListener)) {
+            totalListeners.add(totalListener);
+        }
+    }
+
+    public void removeTotalListener(@NonNull TotalListener totalListener) {
+        totalListeners.remove(totalListener);
+    }
+
+    /**
+     * Gets the exact sum of the values of all registered fields.
+     *
+     * @return
+     */
+    public BigDecimal getTotal() {
+        return total.toBigDecimal();
+    }
+
+    /**
+     * Replaces a field's old value with its new value in the total. Either may be null when
+     * the field has no number.
+     *
+     * @param oldValue
+     * @param newValue
+     */
+    void update(ScaledNumber oldValue, ScaledNumber newValue) {
+        if (oldValue != null) {
+            total = total.add(oldValue.negate());
+        }
+        if (newValue != null) {
+            total = total.add(newValue);
+        }
+    }
+
+    private void scheduleNotify() {
+        if (isNotifyPending || totalListeners.isEmpty()) {
+            return;
+        }
+        isNotifyPending = true;
+        Choreographer.getInstance().postFrameCallback(notifyCallback);
+    }
+
+    public interface TotalListener {
+        /**
+         * Called at most once per frame when the total has changed.
+         *
+         * @param total The sum of the values of all registered fields
+         */
+        void onTotalChange(BigDecimal total);
+    }
+}
@@ -2,6 +2,7 @@ package com.ikmich.numberformat;
 
 import android.annotation.SuppressLint;
 import android.support.annotation.NonNull;
+import android.text.InputFilter;
 import android.text.InputType;
 import android.text.TextUtils;
 import android.text.method.DigitsKeyListener;
@@ -9,6 +10,8 @@ import android.view.MotionEvent;
 import android.view.View;
 import android.widget.EditText;
 
+import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.Currency;
 import java.util.Locale;
 import java.util.regex.Pattern;
@@ -19,16 +22,25 @@ public class NumberInputFormatter {
     private NumberFormatterTextWatcher textWatcher;
     private Builder builder;
     private Locale locale;
+    private boolean shouldShowCurrency;
+    private String currencyString;
+    private boolean isSetup;
 
     private NumberInputFormatter(EditText editText, @NonNull Locale locale, @NonNull Builder builder) {
         this.editText = editText;
         this.locale = locale;
         this.builder = builder;
+        this.shouldShowCurrency = builder.shouldShowCurrency;
+        this.currencyString = builder.mCurrencyString;
 
         textWatcher = new NumberFormatterTextWatcher(this.editText, locale);
         textWatcher.shouldFormatText(builder.shouldFormatText);
         textWatcher.setCurrencyString(getCurrencyString());
         textWatcher.setMaxDecimalDigits(builder.maxDecimalDigits);
+        textWatcher.setMaxIntegerDigits(builder.maxIntegerDigits);
+        textWatcher.setMinValue(builder.minValue);
+        textWatcher.setMaxValue(builder.maxValue);
+        textWatcher.setStep(builder.step);
     }
 
     /**
@@ -48,7 +60,7 @@ public class NumberInputFormatter {
                 }
 
                 String contents = editText.getText().toString();
-                editText.setText(String.format("%s%s", getCurrencyString(), contents));
+                textWatcher.setInitialText(contents);
                 editText.setInputType(
                         InputType.TYPE_CLASS_NUMBER
                                 | InputType.TYPE_NUMBER_FLAG_DECIMAL
@@ -56,6 +68,13 @@ public class NumberInputFormatter {
                 editText.setKeyListener(
                         DigitsKeyListener.getInstance(textWatcher.getAcceptedInputs()));
 
+                InputFilter[] filters = editText.getFilters();
+                if (!Arrays.asList(filters).contains(textWatcher.getConstraintFilter())) {
+                    filters = Arrays.copyOf(filters, filters.length + 1);
+                    filters[filters.length - 1] = textWatcher.getConstraintFilter();
+                    editText.setFilters(filters);
+                }
+
                 final Runnable cursorCheck = new Runnable() {
                     @Override
                     public void run() {
@@ -91,26 +110,143 @@ public class NumberInputFormatter {
                 cursorCheck.run();
 
                 editText.addTextChangedListener(textWatcher);
+                isSetup = true;
             }
         });
     }
 
     private String getCurrencyString() {
-        if (!builder.shouldShowCurrency) {
+        return resolveCurrencyString(locale, shouldShowCurrency, currencyString);
+    }
+
+    /**
+     * Works out the currency string to display.
+     *
+     * @throws IllegalArgumentException If the Locale's currency is needed and the Locale has
+     *                                  none, e.g a Locale without a country.
+     */
+    static String resolveCurrencyString(@NonNull Locale locale, boolean showCurrency,
+                                        String currencyString) {
+        if (!showCurrency) {
             return "";
         }
 
-        if (!TextUtils.isEmpty(builder.mCurrencyString)) {
-            return builder.mCurrencyString;
+        if (!TextUtils.isEmpty(currencyString)) {
+            return currencyString;
         }
 
         return Currency.getInstance(locale).getSymbol();
     }
 
+    /**
+     * Switches the Locale used for formatting. The field's contents are converted from the
+     * stored numeric value, so the existing text is not reparsed.
+     *
+     * @param locale The new Locale.
+     */
+    public void setLocale(@NonNull Locale locale) {
+        switchTo(locale, shouldShowCurrency, currencyString);
+    }
+
+    /**
+     * Switches the Locale and the currency string in one pass. The currency string is only
+     * shown if currency display is enabled; use {@link #showCurrency(boolean, String)} to
+     * change that.
+     *
+     * @param locale         The new Locale.
+     * @param currencyString The currency string to use. Pass an empty string to use the
+     *                       symbol of the new Locale's currency.
+     */
+    public void setLocale(@NonNull Locale locale, String currencyString) {
+        switchTo(locale, shouldShowCurrency, currencyString);
+    }
+
+    /**
+     * Switches the currency display of the field, keeping its numeric value.
+     *
+     * @param b              Whether to show the currency string or not.
+     * @param currencyString The currency string to show. Pass an empty string to use the
+     *                       symbol of the Locale's currency.
+     */
+    public void showCurrency(boolean b, String currencyString) {
+        switchTo(locale, b, currencyString);
+    }
+
+    private void switchTo(@NonNull Locale locale, boolean showCurrency, String currencyString) {
+        // Resolve the currency string first, so that a failed switch changes nothing
+        String newCurrencyString = resolveCurrencyString(locale, showCurrency, currencyString);
+
+        this.locale = locale;
+        this.shouldShowCurrency = showCurrency;
+        this.currencyString = currencyString == null ? "" : currencyString;
+
+        textWatcher.setLocale(locale);
+        textWatcher.setCurrencyString(newCurrencyString);
+
+        if (!isSetup) {
+            // setup() has not run yet. It will pick up the new Locale and currency string.
+            return;
+        }
+
+        editText.setKeyListener(DigitsKeyListener.getInstance(textWatcher.getAcceptedInputs()));
+        textWatcher.refreshText();
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+    boolean isShowingCurrency() {
+        return shouldShowCurrency;
+    }
+
+    String getCustomCurrencyString() {
+        return currencyString;
+    }
+
     public void setInputListener(@NonNull NumberFormatterTextWatcher.InputListener inputListener) {
         textWatcher.setInputListener(inputListener);
     }
 
+    /**
+     * Gets the numeric value of the field.
+     *
+     * @return The value, or null if the field does not contain a number.
+     */
+    public BigDecimal getValue() {
+        return textWatcher.getValue();
+    }
+
+    /**
+     * Checks the field's value against the constraint rules set on the Builder.
+     *
+     * @return true if the value satisfies all the rules, or if there is no value.
+     * @see NumberFormatterTextWatcher#isValueValid()
+     */
+    public boolean isValueValid() {
+        return textWatcher.isValueValid();
+    }
+
+    ScaledNumber getScaledValue() {
+        return textWatcher.getScaledValue();
+    }
+
+    void addScaledValueListener(@NonNull NumberFormatterTextWatcher.ScaledValueListener listener) {
+        textWatcher.addScaledValueListener(listener);
+    }
+
+    void removeScaledValueListener(@NonNull NumberFormatterTextWatcher.ScaledValueListener listener) {
+        textWatcher.removeScaledValueListener(listener);
+    }
+
+    public void addValueListener(@NonNull NumberFormatterTextWatcher.ValueListener valueListener) {
+        textWatcher.addValueListener(valueListener);
+    }
+
+    public void removeValueListener(@NonNull NumberFormatterTextWatcher.ValueListener valueListener) {
+        textWatcher.removeValueListener(valueListener);
+    }
+
     @SuppressWarnings({"unused", "WeakerAccess"})
     public static class Builder {
         private boolean shouldFormatText = true;
@@ -118,6 +254,10 @@ public class NumberInputFormatter {
         private String mCurrencyString = "";
         private Locale mLocale;
         private int maxDecimalDigits = -1;
+        private int maxIntegerDigits = -1;
+        private BigDecimal minValue;
+        private BigDecimal maxValue;
+        private BigDecimal step;
 
         public Builder() {
             this(Locale.getDefault());
@@ -147,7 +287,36 @@ public class NumberInputFormatter {
             return this;
         }
 
+        public Builder setMaxIntegerDigits(int maxIntegerDigits) {
+            this.maxIntegerDigits = maxIntegerDigits;
+            return this;
+        }
+
+        public Builder setMinValue(BigDecimal minValue) {
+            this.minValue = minValue;
+            return this;
+        }
+
+        public Builder setMaxValue(BigDecimal maxValue) {
+            this.maxValue = maxValue;
+            return this;
+        }
+
+        /**
+         * Requires the value to be a multiple of the step, e.g 0.05.
+         *
+         * @param step A positive number.
+         * @return
+         */
+        public Builder setStep(BigDecimal step) {
+            this.step = step;
+            return this;
+        }
+
         public NumberInputFormatter buildFor(EditText editText) {
+            if (minValue != null && maxValue != null && minValue.compareTo(maxValue) > 0) {
+                throw new IllegalArgumentException("minValue must not be greater than maxValue");
+            }
             return new NumberInputFormatter(editText, mLocale, this);
         }
     }
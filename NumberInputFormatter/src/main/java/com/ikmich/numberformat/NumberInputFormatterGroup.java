@@ -0,0 +1,85 @@
+package com.ikmich.numberformat;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A group of {@link NumberInputFormatter}s that share a Locale and currency, so that they can be
+ * switched together, e.g when the user changes region.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class NumberInputFormatterGroup {
+
+    private List<NumberInputFormatter> formatters = new ArrayList<>();
+
+    public NumberInputFormatterGroup add(@NonNull NumberInputFormatter formatter) {
+        if (!formatters.contains(formatter)) {
+            formatters.add(formatter);
+        }
+        return this;
+    }
+
+    public void remove(@NonNull NumberInputFormatter formatter) {
+        formatters.remove(formatter);
+    }
+
+    /**
+     * Switches the Locale of every formatter in the group. If any formatter cannot switch,
+     * e.g because it shows the Locale's currency and the Locale has none, no formatter is
+     * switched.
+     *
+     * @param locale The new Locale.
+     * @see NumberInputFormatter#setLocale(Locale)
+     */
+    public void setLocale(@NonNull Locale locale) {
+        for (NumberInputFormatter formatter : formatters) {
+            NumberInputFormatter.resolveCurrencyString(locale, formatter.isShowingCurrency(),
+                    formatter.getCustomCurrencyString());
+        }
+
+        for (NumberInputFormatter formatter : formatters) {
+            formatter.setLocale(locale);
+        }
+    }
+
+    /**
+     * Switches the Locale and currency string of every formatter in the group. No formatter
+     * is switched if any of them cannot be.
+     *
+     * @param locale         The new Locale.
+     * @param currencyString The currency string to use. It is only shown by formatters that
+     *                       have currency display enabled.
+     * @see NumberInputFormatter#setLocale(Locale, String)
+     */
+    public void setLocale(@NonNull Locale locale, String currencyString) {
+        for (NumberInputFormatter formatter : formatters) {
+            NumberInputFormatter.resolveCurrencyString(locale, formatter.isShowingCurrency(),
+                    currencyString);
+        }
+
+        for (NumberInputFormatter formatter : formatters) {
+            formatter.setLocale(locale, currencyString);
+        }
+    }
+
+    /**
+     * Switches the currency display of every formatter in the group. No formatter is
+     * switched if any of them cannot be.
+     *
+     * @param b              Whether to show the currency string or not.
+     * @param currencyString The currency string to show.
+     * @see NumberInputFormatter#showCurrency(boolean, String)
+     */
+    public void showCurrency(boolean b, String currencyString) {
+        for (NumberInputFormatter formatter : formatters) {
+            NumberInputFormatter.resolveCurrencyString(formatter.getLocale(), b, currencyString);
+        }
+
+        for (NumberInputFormatter formatter : formatters) {
+            formatter.showCurrency(b, currencyString);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.ikmich.numberformat;
+
+import android.support.annotation.NonNull;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * An exact decimal number held as a long scaled by a power of ten, e.g 12.50 is held as 1250
+ * with a scale of 2. Numbers that do not fit in a long are held as a BigDecimal instead, and
+ * go back to the long form as soon as the result of an operation fits again.
+ */
+final class ScaledNumber {
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L,
+            1000000000L, 10000000000L, 100000000000L, 1000000000000L, 10000000000000L,
+            100000000000000L, 1000000000000000L, 10000000000000000L, 100000000000000000L,
+            1000000000000000000L};
+
+    /**
+     * Never a valid unscaled value, so that every unscaled value can be negated.
+     */
+    private static final long OVERFLOW = Long.MIN_VALUE;
+
+    private final long unscaled;
+    private final int scale;
+    private final BigDecimal big;
+
+    private ScaledNumber(long unscaled, int scale, BigDecimal big) {
+        this.unscaled = unscaled;
+        this.scale = scale;
+        this.big = big;
+    }
+
+    /**
+     * @param unscaled The unscaled value. Must not be Long.MIN_VALUE.
+     * @param scale    The number of fraction digits. Must not be negative.
+     * @return
+     */
+    static ScaledNumber of(long unscaled, int scale) {
+        return new ScaledNumber(unscaled, scale, null);
+    }
+
+    static ScaledNumber of(@NonNull BigDecimal number) {
+        if (!fitsInLong(number)) {
+            // Trailing fraction zeros, e.g left over from adding a number with many fraction
+            // digits, can be all that keeps a number out of the range of a long.
+            number = number.stripTrailingZeros();
+        }
+
+        if (number.scale() < 0) {
+            number = number.setScale(0);
+        }
+
+        if (fitsInLong(number)) {
+            return new ScaledNumber(number.unscaledValue().longValue(), number.scale(), null);
+        }
+        return new ScaledNumber(0, number.scale(), number);
+    }
+
+    private static boolean fitsInLong(BigDecimal number) {
+        BigInteger unscaledValue = number.unscaledValue();
+        return unscaledValue.bitLength() < 64 && unscaledValue.longValue() != OVERFLOW;
+    }
+
+    int scale() {
+        return scale;
+    }
+
+    int signum() {
+        if (big != null) {
+            return big.signum();
+        }
+        return unscaled < 0 ? -1 : (unscaled == 0 ? 0 : 1);
+    }
+
+    /**
+     * Gets the number of digits before the decimal point, not counting leading zeros.
+     *
+     * @return
+     */
+    int integerDigits() {
+        if (big != null) {
+            BigInteger integerPart = big.abs().toBigInteger();
+            return integerPart.signum() == 0 ? 0 : integerPart.toString().length();
+        }
+
+        if (scale >= POWERS_OF_TEN.length) {
+            // A long has at most 19 digits, all of them in the fraction here.
+            return 0;
+        }
+
+        long integerPart = Math.abs(unscaled) / POWERS_OF_TEN[scale];
+        int digits = 0;
+        while (integerPart > 0) {
+            integerPart /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    /**
+     * Checks whether the number has non-zero digits after the given number of fraction digits.
+     *
+     * @param maxScale
+     * @return
+     */
+    boolean hasDigitsBeyond(int maxScale) {
+        if (scale <= maxScale) {
+            return false;
+        }
+
+        int scaleDiff = scale - maxScale;
+        if (big != null || scaleDiff >= POWERS_OF_TEN.length) {
+            return toBigDecimal().stripTrailingZeros().scale() > maxScale;
+        }
+        return unscaled % POWERS_OF_TEN[scaleDiff] != 0;
+    }
+
+    /**
+     * Adds two numbers. The result has the larger of the two scales while it fits in a long.
+     *
+     * @param other
+     * @return
+     */
+    ScaledNumber add(@NonNull ScaledNumber other) {
+        if (big == null && other.big == null) {
+            int newScale = Math.max(scale, other.scale);
+            long a = scaleUp(unscaled, newScale - scale);
+            long b = scaleUp(other.unscaled, newScale - other.scale);
+            if (a != OVERFLOW && b != OVERFLOW) {
+                long sum = a + b;
+                // The sum overflowed if both operands have the same sign and the sum's sign
+                // differs from theirs.
+                if (((a ^ sum) & (b ^ sum)) >= 0 && sum != OVERFLOW) {
+                    return new ScaledNumber(sum, newScale, null);
+                }
+            }
+        }
+
+        return of(toBigDecimal().add(other.toBigDecimal()));
+    }
+
+    ScaledNumber negate() {
+        if (big != null) {
+            return of(big.negate());
+        }
+        return new ScaledNumber(-unscaled, scale, null);
+    }
+
+    int compareTo(@NonNull ScaledNumber other) {
+        if (big != null || other.big != null) {
+            return toBigDecimal().compareTo(other.toBigDecimal());
+        }
+
+        if (scale >= other.scale) {
+            return compareAligned(unscaled, other.unscaled, scale - other.scale);
+        }
+        return -compareAligned(other.unscaled, unscaled, other.scale - scale);
+    }
+
+    /**
+     * Checks whether the number is a whole multiple of a positive step.
+     *
+     * @param step
+     * @return
+     */
+    boolean isMultipleOf(@NonNull ScaledNumber step) {
+        if (big == null && step.big == null) {
+            int newScale = Math.max(scale, step.scale);
+            long a = scaleUp(unscaled, newScale - scale);
+            long b = scaleUp(step.unscaled, newScale - step.scale);
+            if (a != OVERFLOW && b != OVERFLOW) {
+                return a % b == 0;
+            }
+        }
+
+        return toBigDecimal().remainder(step.toBigDecimal()).signum() == 0;
+    }
+
+    BigDecimal toBigDecimal() {
+        if (big != null) {
+            return big;
+        }
+        return BigDecimal.valueOf(unscaled, scale);
+    }
+
+    /**
+     * Compares a with b scaled up by scaleDiff powers of ten.
+     */
+    private static int compareAligned(long a, long b, int scaleDiff) {
+        long alignedB = scaleUp(b, scaleDiff);
+        if (alignedB == OVERFLOW) {
+            // b is out of the range of a long once scaled, so it is further from zero than a.
+            return b > 0 ? -1 : 1;
+        }
+        return a < alignedB ? -1 : (a == alignedB ? 0 : 1);
+    }
+
+    /**
+     * Multiplies an unscaled value by scaleDiff powers of ten.
+     *
+     * @return The result, or OVERFLOW if it does not fit in a long.
+     */
+    private static long scaleUp(long value, int scaleDiff) {
+        if (scaleDiff >= POWERS_OF_TEN.length
+                || Math.abs(value) > Long.MAX_VALUE / POWERS_OF_TEN[scaleDiff]) {
+            return OVERFLOW;
+        }
+        return value * POWERS_OF_TEN[scaleDiff];
+    }
+}
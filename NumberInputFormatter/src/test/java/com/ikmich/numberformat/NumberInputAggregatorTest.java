@@ -0,0 +1,103 @@
+package com.ikmich.numberformat;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class NumberInputAggregatorTest {
+
+    private static ScaledNumber of(String number) {
+        return ScaledNumber.of(new BigDecimal(number));
+    }
+
+    private static void assertTotal(String expected, NumberInputAggregator aggregator) {
+        assertEquals(0, new BigDecimal(expected).compareTo(aggregator.getTotal()));
+    }
+
+    @Test
+    public void update_addsAndReplacesValues() {
+        NumberInputAggregator aggregator = new NumberInputAggregator();
+        assertTotal("0", aggregator);
+
+        aggregator.update(null, of("12.50"));
+        aggregator.update(null, of("3"));
+        assertTotal("15.50", aggregator);
+
+        aggregator.update(of("3"), of("-4.125"));
+        assertTotal("8.375", aggregator);
+
+        // Field cleared
+        aggregator.update(of("12.50"), null);
+        assertTotal("-4.125", aggregator);
+    }
+
+    @Test
+    public void update_subtractsRemovedValues() {
+        NumberInputAggregator aggregator = new NumberInputAggregator();
+        aggregator.update(null, of("100"));
+        aggregator.update(null, of("0.05"));
+        aggregator.update(of("100"), null);
+        aggregator.update(of("0.05"), null);
+        assertTotal("0", aggregator);
+    }
+
+    @Test
+    public void update_nearLongLimit() {
+        NumberInputAggregator aggregator = new NumberInputAggregator();
+        ScaledNumber max = ScaledNumber.of(Long.MAX_VALUE, 0);
+
+        aggregator.update(null, max);
+        assertTotal("9223372036854775807", aggregator);
+
+        // Overflows a long in both directions
+        aggregator.update(null, ScaledNumber.of(1, 0));
+        assertTotal("9223372036854775808", aggregator);
+        aggregator.update(null, max.negate());
+        aggregator.update(null, max.negate());
+        aggregator.update(null, ScaledNumber.of(-2, 0));
+        assertTotal("-9223372036854775808", aggregator);
+
+        // Back in range
+        aggregator.update(ScaledNumber.of(-2, 0), null);
+        assertTotal("-9223372036854775806", aggregator);
+
+        // Overflows when the scale is raised
+        aggregator.update(null, of("0.5"));
+        assertTotal("-9223372036854775805.5", aggregator);
+    }
+
+    @Test
+    public void update_matchesBigDecimalSum() {
+        Random random = new Random(42);
+        ScaledNumber[] fields = new ScaledNumber[24];
+        BigDecimal[] reference = new BigDecimal[fields.length];
+        BigDecimal expected = BigDecimal.ZERO;
+        NumberInputAggregator aggregator = new NumberInputAggregator();
+
+        for (int i = 0; i < 5000; i++) {
+            int field = random.nextInt(fields.length);
+            BigDecimal value = null;
+            if (random.nextInt(10) > 0) {
+                // Mostly small amounts, sometimes values close to the long limit
+                long unscaled = random.nextInt(4) == 0
+                        ? random.nextLong() / 2 : random.nextInt(100000000);
+                value = BigDecimal.valueOf(unscaled, random.nextInt(5));
+            }
+
+            aggregator.update(fields[field], value == null ? null : ScaledNumber.of(value));
+            if (reference[field] != null) {
+                expected = expected.subtract(reference[field]);
+            }
+            if (value != null) {
+                expected = expected.add(value);
+            }
+            fields[field] = value == null ? null : ScaledNumber.of(value);
+            reference[field] = value;
+
+            assertEquals(0, expected.compareTo(aggregator.getTotal()));
+        }
+    }
+}
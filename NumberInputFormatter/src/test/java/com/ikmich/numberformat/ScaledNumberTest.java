@@ -0,0 +1,172 @@
+package com.ikmich.numberformat;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.*;
+
+public class ScaledNumberTest {
+
+    private static ScaledNumber of(String number) {
+        return ScaledNumber.of(new BigDecimal(number));
+    }
+
+    @Test
+    public void of_keepsLongFormUpToLongLimit() {
+        assertEquals(new BigDecimal("9223372036854775807"),
+                of("9223372036854775807").toBigDecimal());
+        assertEquals(new BigDecimal("-9223372036854775807"),
+                of("-9223372036854775807").toBigDecimal());
+    }
+
+    @Test
+    public void of_fallsBackToBigDecimalPastLongLimit() {
+        assertEquals(new BigDecimal("9223372036854775808"),
+                of("9223372036854775808").toBigDecimal());
+        assertEquals(new BigDecimal("-9223372036854775808"),
+                of("-9223372036854775808").toBigDecimal());
+        assertEquals(new BigDecimal("123456789012345678901.25"),
+                of("123456789012345678901.25").toBigDecimal());
+    }
+
+    @Test
+    public void of_normalizesNegativeScale() {
+        ScaledNumber number = of("1E+3");
+        assertEquals(0, number.scale());
+        assertEquals(0, number.compareTo(ScaledNumber.of(1000, 0)));
+    }
+
+    @Test
+    public void signum() {
+        assertEquals(1, ScaledNumber.of(5, 2).signum());
+        assertEquals(0, ScaledNumber.of(0, 2).signum());
+        assertEquals(-1, ScaledNumber.of(-5, 2).signum());
+        assertEquals(-1, of("-123456789012345678901").signum());
+    }
+
+    @Test
+    public void compareTo_alignsScales() {
+        assertEquals(0, ScaledNumber.of(1250, 2).compareTo(ScaledNumber.of(125, 1)));
+        assertTrue(ScaledNumber.of(1251, 3).compareTo(ScaledNumber.of(125, 2)) > 0);
+        assertTrue(ScaledNumber.of(1249, 3).compareTo(ScaledNumber.of(125, 2)) < 0);
+        assertTrue(ScaledNumber.of(-125, 1).compareTo(ScaledNumber.of(-1250, 3)) < 0);
+    }
+
+    @Test
+    public void compareTo_whenAligningOverflows() {
+        // 10^18 scaled up by 10^18 does not fit in a long
+        ScaledNumber large = ScaledNumber.of(1000000000000000000L, 0);
+        ScaledNumber small = ScaledNumber.of(1, 18);
+        assertTrue(large.compareTo(small) > 0);
+        assertTrue(small.compareTo(large) < 0);
+
+        ScaledNumber negativeLarge = ScaledNumber.of(-1000000000000000000L, 0);
+        assertTrue(negativeLarge.compareTo(small) < 0);
+        assertTrue(small.compareTo(negativeLarge) > 0);
+    }
+
+    @Test
+    public void compareTo_acrossLongAndBigDecimal() {
+        ScaledNumber big = of("123456789012345678901");
+        assertTrue(big.compareTo(ScaledNumber.of(Long.MAX_VALUE, 0)) > 0);
+        assertTrue(of("-123456789012345678901").compareTo(ScaledNumber.of(-Long.MAX_VALUE, 0)) < 0);
+        assertEquals(0, big.compareTo(of("123456789012345678901.000")));
+    }
+
+    @Test
+    public void integerDigits_ignoresLeadingZerosAndSign() {
+        assertEquals(0, ScaledNumber.of(5, 1).integerDigits());
+        assertEquals(0, ScaledNumber.of(0, 0).integerDigits());
+        assertEquals(1, of("0001.50").integerDigits());
+        assertEquals(3, of("-123.4").integerDigits());
+        assertEquals(19, ScaledNumber.of(Long.MAX_VALUE, 0).integerDigits());
+        assertEquals(0, ScaledNumber.of(Long.MAX_VALUE, 19).integerDigits());
+        assertEquals(21, of("123456789012345678901.5").integerDigits());
+    }
+
+    @Test
+    public void hasDigitsBeyond() {
+        assertFalse(ScaledNumber.of(125, 2).hasDigitsBeyond(2));
+        assertFalse(ScaledNumber.of(1250, 3).hasDigitsBeyond(2));
+        assertTrue(ScaledNumber.of(1251, 3).hasDigitsBeyond(2));
+        assertTrue(ScaledNumber.of(-1251, 3).hasDigitsBeyond(2));
+        assertFalse(of("1.00000000000000000000").hasDigitsBeyond(0));
+        assertTrue(of("1.00000000000000000001").hasDigitsBeyond(0));
+    }
+
+    @Test
+    public void isMultipleOf_stepScales() {
+        ScaledNumber step = of("0.05");
+        ScaledNumber stepWithTrailingZero = of("0.050");
+
+        assertTrue(of("1.15").isMultipleOf(step));
+        assertTrue(of("1.15").isMultipleOf(stepWithTrailingZero));
+        assertTrue(of("1.150").isMultipleOf(step));
+        assertTrue(of("1.1").isMultipleOf(stepWithTrailingZero));
+        assertTrue(of("2").isMultipleOf(step));
+        assertFalse(of("1.12").isMultipleOf(step));
+        assertFalse(of("1.151").isMultipleOf(stepWithTrailingZero));
+    }
+
+    @Test
+    public void isMultipleOf_negativeValues() {
+        ScaledNumber step = of("0.25");
+        assertTrue(of("-1.75").isMultipleOf(step));
+        assertFalse(of("-1.7").isMultipleOf(step));
+        assertTrue(of("0").isMultipleOf(step));
+    }
+
+    @Test
+    public void isMultipleOf_whenAligningOverflows() {
+        ScaledNumber step = of("0.5");
+        assertTrue(ScaledNumber.of(Long.MAX_VALUE - 7, 0).isMultipleOf(ScaledNumber.of(1, 0)));
+        // Aligning to the step's scale overflows a long
+        assertTrue(ScaledNumber.of(4000000000000000000L, 0).isMultipleOf(step));
+        assertFalse(ScaledNumber.of(1, 0).isMultipleOf(of("0.0000000000000000003")));
+        assertTrue(of("123456789012345678901.5").isMultipleOf(step));
+        assertFalse(of("123456789012345678901.3").isMultipleOf(step));
+    }
+
+    @Test
+    public void add_alignsScales() {
+        ScaledNumber sum = of("1.5").add(of("2.25"));
+        assertEquals(2, sum.scale());
+        assertEquals(new BigDecimal("3.75"), sum.toBigDecimal());
+        assertEquals(new BigDecimal("-0.75"), of("1.5").add(of("-2.25")).toBigDecimal());
+    }
+
+    @Test
+    public void add_fallsBackToBigDecimalOnOverflow() {
+        ScaledNumber max = ScaledNumber.of(Long.MAX_VALUE, 0);
+        assertEquals(new BigDecimal("9223372036854775808"),
+                max.add(ScaledNumber.of(1, 0)).toBigDecimal());
+        assertEquals(new BigDecimal("-9223372036854775808"),
+                max.negate().add(ScaledNumber.of(-1, 0)).toBigDecimal());
+        // Aligning the scales overflows, but the sum itself does not
+        assertEquals(new BigDecimal("10000000000.000000001"),
+                of("10000000000").add(of("0.000000001")).toBigDecimal());
+    }
+
+    @Test
+    public void add_returnsToLongFormWhenResultFits() {
+        ScaledNumber big = of("9223372036854775808");
+        ScaledNumber sum = big.add(ScaledNumber.of(-1, 0));
+        assertEquals(0, sum.compareTo(ScaledNumber.of(Long.MAX_VALUE, 0)));
+
+        // Trailing zeros from a value with many fraction digits are dropped once it is gone
+        ScaledNumber total = of("100").add(of("0.000000000000000001"));
+        total = total.add(of("-0.000000000000000001"));
+        assertEquals(0, total.scale());
+        assertEquals(new BigDecimal("100"), total.toBigDecimal());
+    }
+
+    @Test
+    public void negate() {
+        assertEquals(new BigDecimal("-1.25"), of("1.25").negate().toBigDecimal());
+        assertEquals(new BigDecimal("9223372036854775808"),
+                of("-9223372036854775808").negate().toBigDecimal());
+        assertEquals(new BigDecimal("-9223372036854775807"),
+                ScaledNumber.of(Long.MAX_VALUE, 0).negate().toBigDecimal());
+    }
+}